@@ -0,0 +1,271 @@
+package com.custom.cache.lib.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+//Reusable asynchronous client of the custom cache server
+public class CacheClient implements Closeable {
+
+    static final String BATCH_EVENT = "batch_event";
+
+    private final CacheClientOptions options;
+
+    private final List<PooledConnection> connections = new ArrayList<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Gson gson = new Gson();
+
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    private final Object lock = new Object();
+
+    //requests issued within the current batch window
+    private List<PendingRequest> batch = new ArrayList<>();
+
+    //requests waiting for a connection to be (re)established, removed as soon as they complete (e.g. time out)
+    private final Set<PendingRequest> waiting = new LinkedHashSet<>();
+
+    //set under lock, the scheduler is only shut down once it is set
+    private volatile boolean closed;
+
+    /*
+      Here are the characteristic of the client:
+      - get, put and remove return a CompletableFuture, completed from the socket.io event thread when the server replies
+        (value of the record for get, result message of the server for put and remove).
+      - Requests are spread over a pool of connections, each request goes to the connected socket with the fewest requests in flight.
+      - Small requests issued within a short window are sent together in one `batch_event` frame.
+      - Every request completes exceptionally with a TimeoutException if the server does not reply in time.
+      - Lost connections are re-established automatically, requests in flight on them are sent again on another connection
+        (or once a connection is back). A retried put may therefore be answered with "Record exist inside cache".
+      - This client is thread safe.
+    */
+    public CacheClient(String url) throws URISyntaxException {
+        this(url, new CacheClientOptions());
+    }
+
+    public CacheClient(String url, CacheClientOptions options) throws URISyntaxException {
+        this.options = options;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread t = new Thread(runnable, "cache-client-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < Math.max(1, options.poolSize); i++) {
+            connections.add(new PooledConnection(this, url, options.userId + "-" + i, options));
+        }
+    }
+
+    //open every connection of the pool, requests issued before a connection is up are sent as soon as it is
+    public CacheClient connect() {
+        for (PooledConnection connection : connections) {
+            connection.connect();
+        }
+        return this;
+    }
+
+    //fetch a record from the cache, completes with null when the key does not exist
+    public CompletableFuture<String> get(String key) {
+        return submit(new PendingRequest("get", Objects.requireNonNull(key, "key"), null));
+    }
+
+    //insert a record into the cache
+    public CompletableFuture<String> put(String key, String value) {
+        return submit(new PendingRequest("put", Objects.requireNonNull(key, "key"), Objects.requireNonNull(value, "value")));
+    }
+
+    //remove a record from the cache
+    public CompletableFuture<String> remove(String key) {
+        return submit(new PendingRequest("remove", Objects.requireNonNull(key, "key"), null));
+    }
+
+    //close every connection, requests not answered yet complete exceptionally
+    @Override
+    public void close() {
+        List<PendingRequest> pending = new ArrayList<>();
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.addAll(batch);
+            pending.addAll(waiting);
+            batch.clear();
+            waiting.clear();
+        }
+        for (PooledConnection connection : connections) {
+            connection.close();
+            pending.addAll(connection.drain());
+        }
+        scheduler.shutdownNow();
+        for (PendingRequest request : pending) {
+            failClosed(request);
+        }
+    }
+
+    private CompletableFuture<String> submit(PendingRequest request) {
+        synchronized (lock) {
+            if (closed) {
+                failClosed(request);
+                return request.future;
+            }
+            ScheduledFuture<?> timeout = scheduler.schedule(() -> request.future.completeExceptionally(
+                    new TimeoutException("No reply for " + request.event() + " key[" + request.key + "] within "
+                            + options.requestTimeoutMillis + "ms")),
+                    options.requestTimeoutMillis, TimeUnit.MILLISECONDS);
+            request.future.whenComplete((result, ex) -> {
+                timeout.cancel(false);
+                PooledConnection connection = request.connection;
+                if (connection != null) {
+                    connection.release(request);
+                }
+                synchronized (lock) {
+                    waiting.remove(request);
+                }
+            });
+        }
+        enqueue(request);
+        return request.future;
+    }
+
+    private void failClosed(PendingRequest request) {
+        request.future.completeExceptionally(new IOException("Cache client closed"));
+    }
+
+    //add a request to the current batch, sent when the window ends or the batch is full
+    private void enqueue(PendingRequest request) {
+        List<PendingRequest> ready = null;
+        synchronized (lock) {
+            if (closed) {
+                failClosed(request);
+                return;
+            }
+            batch.add(request);
+            if (options.batchWindowMillis <= 0 || batch.size() >= options.maxBatchSize) {
+                ready = batch;
+                batch = new ArrayList<>();
+            } else if (batch.size() == 1) {
+                scheduler.schedule(this::flush, options.batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+    }
+
+    private void flush() {
+        List<PendingRequest> ready;
+        synchronized (lock) {
+            ready = batch;
+            batch = new ArrayList<>();
+        }
+        dispatch(ready);
+    }
+
+    //send requests on the least loaded connection, or keep them until a connection is up
+    private void dispatch(List<PendingRequest> requests) {
+        List<PendingRequest> live = new ArrayList<>(requests.size());
+        for (PendingRequest request : requests) {
+            if (!request.future.isDone()) {
+                live.add(request);
+            }
+        }
+        int chunkSize = Math.max(1, options.maxBatchSize);
+        for (int from = 0; from < live.size(); from += chunkSize) {
+            List<PendingRequest> chunk = live.subList(from, Math.min(live.size(), from + chunkSize));
+            synchronized (lock) {
+                if (closed) {
+                    chunk.forEach(this::failClosed);
+                    continue;
+                }
+                PooledConnection connection = leastLoadedConnection();
+                if (connection == null) {
+                    for (PendingRequest request : chunk) {
+                        //a request completed meanwhile would never be removed
+                        if (!request.future.isDone()) {
+                            waiting.add(request);
+                        }
+                    }
+                    continue;
+                }
+                //sent under the lock (emit only queues the packet), so close() drains the connections after these requests are in flight
+                connection.send(new ArrayList<>(chunk));
+            }
+        }
+    }
+
+    //connected socket with the fewest requests in flight, ties are broken round robin
+    private PooledConnection leastLoadedConnection() {
+        int start = Math.abs(nextConnection.getAndIncrement() % connections.size());
+        PooledConnection best = null;
+        for (int i = 0; i < connections.size(); i++) {
+            PooledConnection connection = connections.get((start + i) % connections.size());
+            if (connection.isConnected() && (best == null || connection.inFlightCount() < best.inFlightCount())) {
+                best = connection;
+            }
+        }
+        return best;
+    }
+
+    //a connection of the pool is (back) up, send the requests waiting for one
+    void onConnected() {
+        List<PendingRequest> ready;
+        synchronized (lock) {
+            ready = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        dispatch(ready);
+    }
+
+    //a connection of the pool was lost, send its requests in flight again
+    void onConnectionLost(List<PendingRequest> inFlight) {
+        for (PendingRequest request : inFlight) {
+            request.connection = null;
+            if (request.future.isDone()) {
+                continue;
+            }
+            if (closed || ++request.retries > options.maxRetries) {
+                request.future.completeExceptionally(new IOException("Connection to cache server lost before reply for "
+                        + request.event() + " key[" + request.key + "]"));
+            } else {
+                enqueue(request);
+            }
+        }
+    }
+
+    //number of requests waiting for a connection
+    int waitingCount() {
+        synchronized (lock) {
+            return waiting.size();
+        }
+    }
+
+    String encode(List<PendingRequest> requests) {
+        return gson.toJson(requests);
+    }
+
+    //replies of a `batch_event`, null when the server rejected the batch
+    String[] decode(String reply) {
+        try {
+            return gson.fromJson(reply, String[].class);
+        } catch (JsonParseException ex) {
+            return null;
+        }
+    }
+}
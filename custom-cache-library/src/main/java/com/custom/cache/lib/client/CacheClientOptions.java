@@ -0,0 +1,26 @@
+package com.custom.cache.lib.client;
+
+//CacheClient settings, same style as socket.io IO.Options: create, change the public fields, pass to the client
+public class CacheClientOptions {
+
+    //Number of socket.io connections opened to the cache server
+    public int poolSize = 4;
+
+    //A request not answered within this time (ms) completes exceptionally with a TimeoutException, retries included
+    public long requestTimeoutMillis = 3000;
+
+    //Number of times a request in flight on a lost connection is sent again
+    public int maxRetries = 2;
+
+    //Requests issued within this window (ms) are sent together in one `batch_event` frame, 0 sends every request on its own
+    public long batchWindowMillis = 2;
+
+    //A batch is sent as soon as it holds this many requests
+    public int maxBatchSize = 64;
+
+    //Time interval (ms) for failed reconnection
+    public long reconnectionDelayMillis = 1000;
+
+    //userId prefix, each pooled connection registers on the server as <userId>-<index>
+    public String userId = "CACHE-CLIENT";
+}
@@ -0,0 +1,42 @@
+package com.custom.cache.lib.client;
+
+import java.util.concurrent.CompletableFuture;
+
+//One get/put/remove request waiting for its reply, fields op/key/value are the `batch_event` wire format
+class PendingRequest {
+
+    final String op;
+
+    final String key;
+
+    final String value;
+
+    final transient CompletableFuture<String> future = new CompletableFuture<>();
+
+    //number of times the request has been sent again after a lost connection
+    transient int retries;
+
+    //connection the request is currently in flight on
+    transient volatile PooledConnection connection;
+
+    PendingRequest(String op, String key, String value) {
+        this.op = op;
+        this.key = key;
+        this.value = value;
+    }
+
+    //event used when the request is sent on its own
+    String event() {
+        return op + "_event";
+    }
+
+    //`put_event` splits its payload on '=', such puts have to go through `batch_event`
+    boolean canBeSentAlone() {
+        return !"put".equals(op) || (key.indexOf('=') < 0 && value.indexOf('=') < 0);
+    }
+
+    //payload used when the request is sent on its own
+    String payload() {
+        return "put".equals(op) ? key + "=" + value : key;
+    }
+}
@@ -0,0 +1,117 @@
+package com.custom.cache.lib.client;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONObject;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+
+//One socket.io connection of the CacheClient pool, replies are matched to requests with socket.io acks
+class PooledConnection {
+
+    private final CacheClient client;
+
+    private final Socket socket;
+
+    private final Set<PendingRequest> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean connected;
+
+    PooledConnection(CacheClient client, String url, String userId, CacheClientOptions options) throws URISyntaxException {
+        this.client = client;
+
+        IO.Options ioOptions = new IO.Options();
+        ioOptions.transports = new String[]{"websocket"};
+        // A new manager per connection, otherwise every socket of the pool shares the same underlying connection
+        ioOptions.forceNew = true;
+        // Keep reconnecting for the whole life of the client
+        ioOptions.reconnection = true;
+        ioOptions.reconnectionAttempts = Integer.MAX_VALUE;
+        ioOptions.reconnectionDelay = options.reconnectionDelayMillis;
+        // Connection timeout (ms)
+        ioOptions.timeout = options.requestTimeoutMillis;
+        socket = IO.socket(url + "?userId=" + userId, ioOptions);
+
+        socket.on(Socket.EVENT_CONNECT, args -> {
+            connected = true;
+            client.onConnected();
+        });
+        // Requests still in flight will never be answered on this socket, hand them back to the client to be retried
+        socket.on(Socket.EVENT_DISCONNECT, args -> {
+            connected = false;
+            client.onConnectionLost(drain());
+        });
+    }
+
+    void connect() {
+        socket.connect();
+    }
+
+    void close() {
+        connected = false;
+        socket.off();
+        socket.close();
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    //send one request on its own event, or several at once in a `batch_event` frame
+    void send(List<PendingRequest> requests) {
+        for (PendingRequest request : requests) {
+            request.connection = this;
+            inFlight.add(request);
+        }
+        if (requests.size() == 1 && requests.get(0).canBeSentAlone()) {
+            PendingRequest request = requests.get(0);
+            socket.emit(request.event(), new Object[]{request.payload()}, args -> complete(request, toString(args)));
+        } else {
+            socket.emit(CacheClient.BATCH_EVENT, new Object[]{client.encode(requests)}, args -> {
+                String[] results = client.decode(toString(args));
+                for (int i = 0; i < requests.size(); i++) {
+                    if (results != null && i < results.length) {
+                        complete(requests.get(i), results[i]);
+                    } else {
+                        release(requests.get(i));
+                        requests.get(i).future.completeExceptionally(
+                                new IllegalStateException("Invalid batch reply from server[" + toString(args) + "]"));
+                    }
+                }
+            });
+        }
+    }
+
+    //forget a request which completed (answered, timed out or failed)
+    void release(PendingRequest request) {
+        inFlight.remove(request);
+    }
+
+    //remove and return every request in flight
+    List<PendingRequest> drain() {
+        List<PendingRequest> drained = new ArrayList<>(inFlight);
+        inFlight.removeAll(drained);
+        return drained;
+    }
+
+    private void complete(PendingRequest request, String result) {
+        release(request);
+        request.future.complete(result);
+    }
+
+    private static String toString(Object[] args) {
+        if (args.length == 0 || args[0] == null || JSONObject.NULL.equals(args[0])) {
+            return null;
+        }
+        return args[0].toString();
+    }
+}
@@ -8,7 +8,7 @@ import org.slf4j.LoggerFactory;
 import io.socket.client.IO;
 import io.socket.client.Socket;
 
-//Socket.io client to test custom cache
+//Socket.io client to test custom cache, applications should use the asynchronous CacheClient instead
 public class SocketIOClientLaunch {
 	
 	private static final Logger logger = LoggerFactory.getLogger(SocketIOClientLaunch.class);
@@ -54,6 +54,8 @@ public class SocketIOClientLaunch {
             checkSizeMessage(socket);
             getMessage(socket, "A005");
             getMessage(socket, "A001");
+            hotKeysMessage(socket);
+            scanMessage(socket, "A00");
             
             // Ping server every 30 second (greeting) to check if cache server still up and running
             new Thread(() -> {
@@ -113,5 +115,23 @@ public class SocketIOClientLaunch {
     	socket.emit("check_size_event", "");
         socket.on("check_size_event", objects -> logger.debug("cache size[" + objects[0]+"]"));
     }
+    
+    //fetch the first page of records whose key starts with prefix
+    private static void scanMessage(Socket socket, String prefix) throws Exception{
+    	Thread.sleep(3000);
+    	//clear previous scan event listener
+    	socket.off("scan_event");
+    	socket.emit("scan_event", "{\"cursor\":0,\"prefix\":\"" + prefix + "\",\"count\":100}");
+        socket.on("scan_event", objects -> logger.debug("scan prefix[" + prefix + "] page[" + objects[0]+"]"));
+    }
+    
+    //fetch the hottest keys and largest values of the cache
+    private static void hotKeysMessage(Socket socket) throws Exception{
+    	Thread.sleep(3000);
+    	//clear previous hot keys event listener
+    	socket.off("hotkeys_event");
+    	socket.emit("hotkeys_event", "");
+        socket.on("hotkeys_event", objects -> logger.debug("hot keys report[" + objects[0]+"]"));
+    }
 
 }
\ No newline at end of file
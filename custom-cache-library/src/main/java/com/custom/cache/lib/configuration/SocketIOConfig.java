@@ -42,6 +42,8 @@ public class SocketIOConfig {
         SocketConfig socketConfig = new SocketConfig();
         socketConfig.setTcpNoDelay(true);
         socketConfig.setSoLinger(0);
+        // Allow a restart on the same port while connections of the previous run are still in TIME_WAIT
+        socketConfig.setReuseAddress(true);
         com.corundumstudio.socketio.Configuration config = new com.corundumstudio.socketio.Configuration();
         config.setSocketConfig(socketConfig);
         config.setHostname(host);
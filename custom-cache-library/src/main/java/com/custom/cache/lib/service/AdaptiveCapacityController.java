@@ -0,0 +1,354 @@
+package com.custom.cache.lib.service;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AdaptiveCapacityController implements AdaptiveCapacityControllerMBean, NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCapacityController.class);
+
+    //com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, kept as a string to stay on java.lang.management
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    //shrink to 75% of the current capacity, grow back by 25% of the current capacity
+    private static final double SHRINK_FACTOR = 0.75;
+
+    private static final double GROW_FACTOR = 1.25;
+
+    //wait between two shrink steps, evicted records only leave the old generation once it is collected again
+    static final long SHRINK_COOLDOWN_MILLIS = 10000;
+
+    //wait between two grow steps (and after a shrink) so the old generation has time to reflect the new size
+    static final long GROW_COOLDOWN_MILLIS = 10000;
+
+    private final CustomInMemoryCache<?, ?> cache;
+
+    private final int minCapacity;
+
+    private final double lowWatermark;
+
+    private final double highWatermark;
+
+    private final OccupancySource occupancy;
+
+    private final LongSupplier clock;
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    private double oldGenOccupancy;
+
+    private long shrinkCount;
+
+    private long growCount;
+
+    private long evictedCount;
+
+    private long lastShrinkMillis;
+
+    private long lastGrowMillis;
+
+    private String lastDecision = "none";
+
+    /*
+      Here are the characteristic of the adaptive sizing:
+      - Garbage collection notifications are handed to a dedicated thread, the JVM notification thread never resizes the cache.
+      - Shrinking is only decided on a fresh reading of the usage left by an old generation collection, i.e. when that reading
+        changed since the previous check. Young collections do not refresh it (G1 young collections do list the old generation
+        pool), acting on them would shrink again and again on the same stale value.
+      - Above the high watermark the cache capacity is reduced and the least recently used records are evicted down to it,
+        at most once per cooldown, until the occupancy drops or the minimum capacity is reached.
+      - Below the low watermark the capacity is raised step by step back up to the maxItems the cache was created with. The
+        current usage is used for that (garbage included, so it over-estimates the live data), which is checked after any collection.
+      - Between the two watermarks nothing changes, which avoids resizing back and forth.
+    */
+    public AdaptiveCapacityController(CustomInMemoryCache<?, ?> cache, int minCapacity, double lowWatermark, double highWatermark) {
+        this(cache, minCapacity, lowWatermark, highWatermark, new MemoryPoolOccupancy(), System::currentTimeMillis);
+    }
+
+    //occupancy source and clock can be replaced in tests
+    AdaptiveCapacityController(CustomInMemoryCache<?, ?> cache, int minCapacity, double lowWatermark, double highWatermark,
+            OccupancySource occupancy, LongSupplier clock) {
+        if (lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("lowWatermark[" + lowWatermark + "] must be lower than highWatermark[" + highWatermark + "]");
+        }
+        this.cache = cache;
+        this.minCapacity = Math.max(1, Math.min(minCapacity, cache.getMaxCapacity()));
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.occupancy = occupancy;
+        this.clock = clock;
+        this.lastShrinkMillis = clock.getAsLong() - SHRINK_COOLDOWN_MILLIS;
+        this.lastGrowMillis = clock.getAsLong() - GROW_COOLDOWN_MILLIS;
+    }
+
+    //start listening to garbage collection notifications
+    public synchronized void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread t = new Thread(runnable, "cache-capacity-controller");
+            t.setDaemon(true);
+            return t;
+        });
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+        logger.info("Adaptive cache sizing started, old generation" + occupancy + " watermarks[" + lowWatermark + "-" + highWatermark + "]");
+    }
+
+    //stop listening to garbage collection notifications, the current capacity is kept
+    public synchronized void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ex) {
+                //already removed
+            }
+        }
+        emitters.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GC_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        ExecutorService target;
+        synchronized (this) {
+            target = executor;
+        }
+        if (target != null) {
+            try {
+                target.execute(() -> evaluate(true));
+            } catch (RejectedExecutionException ex) {
+                //stopped meanwhile
+            }
+        }
+    }
+
+    @Override
+    public void evaluate() {
+        evaluate(false);
+    }
+
+    //decide on a resize, afterCollection tells if a garbage collection has just ended (the only time shrinking is considered)
+    synchronized void evaluate(boolean afterCollection) {
+        int current = cache.getCapacity();
+        long now = clock.getAsLong();
+
+        if (afterCollection && occupancy.collectedSinceLastCheck()) {
+            oldGenOccupancy = occupancy.afterCollection();
+            if (oldGenOccupancy > highWatermark) {
+                if (current > minCapacity && now - lastShrinkMillis >= SHRINK_COOLDOWN_MILLIS) {
+                    int target = Math.max(minCapacity, (int) (current * SHRINK_FACTOR));
+                    int evicted = cache.resize(target);
+                    shrinkCount++;
+                    evictedCount += evicted;
+                    lastShrinkMillis = now;
+                    lastDecision = "shrink " + current + "->" + target + " occupancy[" + format(oldGenOccupancy) + "] evicted[" + evicted + "]";
+                    logger.info("Cache capacity " + lastDecision);
+                }
+                return;
+            }
+        }
+
+        if (current >= cache.getMaxCapacity() || now - lastGrowMillis < GROW_COOLDOWN_MILLIS
+                || now - lastShrinkMillis < GROW_COOLDOWN_MILLIS) {
+            return;
+        }
+        double usage = occupancy.current();
+        if (usage < lowWatermark) {
+            oldGenOccupancy = usage;
+            int target = Math.min(cache.getMaxCapacity(), Math.max(current + 1, (int) (current * GROW_FACTOR)));
+            cache.resize(target);
+            growCount++;
+            lastGrowMillis = now;
+            lastDecision = "grow " + current + "->" + target + " occupancy[" + format(usage) + "]";
+            logger.info("Cache capacity " + lastDecision);
+        }
+    }
+
+    @Override
+    public int getEffectiveCapacity() {
+        return cache.getCapacity();
+    }
+
+    @Override
+    public int getMaxCapacity() {
+        return cache.getMaxCapacity();
+    }
+
+    @Override
+    public int getMinCapacity() {
+        return minCapacity;
+    }
+
+    @Override
+    public synchronized double getOldGenOccupancy() {
+        return oldGenOccupancy;
+    }
+
+    @Override
+    public double getHighWatermark() {
+        return highWatermark;
+    }
+
+    @Override
+    public double getLowWatermark() {
+        return lowWatermark;
+    }
+
+    @Override
+    public synchronized long getShrinkCount() {
+        return shrinkCount;
+    }
+
+    @Override
+    public synchronized long getGrowCount() {
+        return growCount;
+    }
+
+    @Override
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    @Override
+    public synchronized String getLastDecision() {
+        return lastDecision;
+    }
+
+    private static String format(double ratio) {
+        return String.format("%.2f", ratio);
+    }
+
+    /**
+     * Old generation occupancy readings (0.0 - 1.0)
+     */
+    interface OccupancySource {
+        //usage left by the last collection of the old generation
+        double afterCollection();
+
+        //current usage, garbage not collected yet included
+        double current();
+
+        //true when afterCollection() changed since the previous call, i.e. the old generation has been collected in between
+        boolean collectedSinceLastCheck();
+    }
+
+    /**
+     * Occupancy of the old generation pool(s) read from the memory pool MXBeans
+     */
+    static class MemoryPoolOccupancy implements OccupancySource {
+
+        private final List<MemoryPoolMXBean> oldGenPools;
+
+        //used bytes left by the last collection of each pool, as seen by the previous check
+        private final long[] lastCollectionUsed;
+
+        MemoryPoolOccupancy() {
+            this(oldGenPools());
+        }
+
+        MemoryPoolOccupancy(List<MemoryPoolMXBean> oldGenPools) {
+            this.oldGenPools = oldGenPools;
+            this.lastCollectionUsed = new long[oldGenPools.size()];
+            //a reading older than the controller is not fresh
+            collectedSinceLastCheck();
+        }
+
+        private static List<MemoryPoolMXBean> oldGenPools() {
+            List<MemoryPoolMXBean> oldGenPools = new ArrayList<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                String name = pool.getName();
+                if (pool.getType() == MemoryType.HEAP && (name.contains("Old") || name.contains("Tenured"))) {
+                    oldGenPools.add(pool);
+                }
+            }
+            //single generation collectors (e.g. ZGC, Shenandoah) only expose one heap pool
+            if (oldGenPools.isEmpty()) {
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+                        oldGenPools.add(pool);
+                    }
+                }
+            }
+            return oldGenPools;
+        }
+
+        @Override
+        public double afterCollection() {
+            double occupancy = 0;
+            for (MemoryPoolMXBean pool : oldGenPools) {
+                MemoryUsage usage = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+                occupancy = Math.max(occupancy, ratio(usage != null ? usage : pool.getUsage()));
+            }
+            return occupancy;
+        }
+
+        @Override
+        public double current() {
+            double occupancy = 0;
+            for (MemoryPoolMXBean pool : oldGenPools) {
+                occupancy = Math.max(occupancy, ratio(pool.getUsage()));
+            }
+            return occupancy;
+        }
+
+        //the pool names of a collector cannot tell (G1 young collections list the old generation pool without refreshing its
+        //collection usage), so the reading is compared with the previous one. Two old generation collections leaving exactly
+        //the same number of bytes are taken as one, the next collection catches up
+        @Override
+        public boolean collectedSinceLastCheck() {
+            boolean changed = false;
+            for (int i = 0; i < oldGenPools.size(); i++) {
+                MemoryPoolMXBean pool = oldGenPools.get(i);
+                MemoryUsage usage = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+                if (usage != null && usage.getUsed() != lastCollectionUsed[i]) {
+                    lastCollectionUsed[i] = usage.getUsed();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private static double ratio(MemoryUsage usage) {
+            long limit = usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+            return limit > 0 ? (double) usage.getUsed() / limit : 0;
+        }
+
+        @Override
+        public String toString() {
+            List<String> names = new ArrayList<>();
+            for (MemoryPoolMXBean pool : oldGenPools) {
+                names.add(pool.getName());
+            }
+            return names.toString();
+        }
+    }
+}
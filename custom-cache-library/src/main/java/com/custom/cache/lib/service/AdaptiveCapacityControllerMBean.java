@@ -0,0 +1,59 @@
+package com.custom.cache.lib.service;
+
+//JMX view of the heap-pressure-aware cache sizing (registered by SocketIOServiceImpl)
+public interface AdaptiveCapacityControllerMBean {
+    /**
+     * Current maximum number of records kept inside the cache
+     */
+    int getEffectiveCapacity();
+
+    /**
+     * Upper bound the capacity grows back to
+     */
+    int getMaxCapacity();
+
+    /**
+     * Lower bound the capacity shrinks to
+     */
+    int getMinCapacity();
+
+    /**
+     * Old generation occupancy (0.0 - 1.0) measured at the last decision
+     */
+    double getOldGenOccupancy();
+
+    /**
+     * Occupancy above which the cache shrinks
+     */
+    double getHighWatermark();
+
+    /**
+     * Occupancy below which the cache grows back
+     */
+    double getLowWatermark();
+
+    /**
+     * Number of times the cache has been shrunk
+     */
+    long getShrinkCount();
+
+    /**
+     * Number of times the cache has been grown back
+     */
+    long getGrowCount();
+
+    /**
+     * Number of records evicted because of shrinking
+     */
+    long getEvictedCount();
+
+    /**
+     * Description of the last resize decision
+     */
+    String getLastDecision();
+
+    /**
+     * Measure the heap now and grow the cache back if the pressure is gone (shrinking only follows old generation collections)
+     */
+    void evaluate();
+}
@@ -0,0 +1,234 @@
+package com.custom.cache.lib.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Streaming warm-up of a CustomInMemoryCache from a `key=value` file
+public class CacheBulkLoader {
+
+    private final CustomInMemoryCache<String, String> cache;
+
+    private final int chunkSize;
+
+    private final int threads;
+
+    /*
+      Here are the characteristic of the loader:
+      - The file is read line by line, one `key=value` record per line (split on the first '='), blank lines and lines
+        starting with '#' are ignored, other lines without '=' are counted as skipped.
+      - Lines are grouped into chunks, each chunk is parsed by a worker thread and inserted under a single cache lock.
+      - Chunks are parsed in parallel but inserted in file order, so when a key appears several times the last line wins
+        and the LRU order of the loaded records follows the file (the end of the file is the most recently used).
+      - At most 2 chunks per worker are handed over (running, queued or waiting for their turn), the reader waits for a free
+        slot, so memory stays bounded by (2 x threads + 1) x chunkSize lines whatever the size of the file.
+      - The first failure (Error included) stops the load: no further line is read, no further chunk is inserted and load()
+        throws it.
+      - Records written by a previous load are overwritten. A key written by a client (put) is kept: clients are served while
+        the warm-up runs, the file never replaces their more recent value.
+    */
+    public CacheBulkLoader(CustomInMemoryCache<String, String> cache, int chunkSize, int threads) {
+        this.cache = cache;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = Math.max(1, threads);
+    }
+
+    //load a whole file, returns once every record has been inserted
+    public LoadResult load(Path file) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        LoadState state = new LoadState(threads * 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread t = new Thread(runnable, "cache-bulk-loader-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long sequence = 0;
+            List<String> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null && state.failure.get() == null) {
+                chunk.add(line);
+                if (chunk.size() >= chunkSize) {
+                    submit(workers, state, sequence++, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty() && state.failure.get() == null) {
+                submit(workers, state, sequence, chunk);
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        Throwable failure = state.failure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Cache warm-up failed", failure);
+        }
+        return new LoadResult(state.loaded.get(), state.skipped.get(), state.ignored.get(), state.evicted.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void submit(ExecutorService workers, LoadState state, long sequence, List<String> chunk) throws InterruptedException {
+        state.slots.acquire();
+        workers.execute(() -> {
+            Throwable error = null;
+            try {
+                Map<String, String> records = new LinkedHashMap<>(chunk.size() * 2);
+                //extra lines of the keys repeated within the chunk
+                Map<String, Integer> repeats = new HashMap<>();
+                long parsed = 0;
+                for (String line : chunk) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    int separator = line.indexOf('=');
+                    if (separator <= 0) {
+                        state.skipped.incrementAndGet();
+                        continue;
+                    }
+                    //re-inserted so a repeated key moves to the position of its last line
+                    String key = line.substring(0, separator);
+                    if (records.remove(key) != null) {
+                        repeats.merge(key, 1, Integer::sum);
+                    }
+                    records.put(key, line.substring(separator + 1));
+                    parsed++;
+                }
+
+                state.awaitTurn(sequence);
+                if (state.failure.get() == null) {
+                    CustomInMemoryCache.BatchLoad<String> batch = cache.loadAll(records);
+                    long ignored = 0;
+                    for (String key : batch.getIgnoredKeys()) {
+                        ignored += 1 + repeats.getOrDefault(key, 0);
+                    }
+                    state.loaded.addAndGet(parsed - ignored);
+                    state.ignored.addAndGet(ignored);
+                    state.evicted.addAndGet(batch.getEvicted());
+                }
+            } catch (Throwable ex) {
+                error = ex;
+            } finally {
+                //recorded before the next chunk gets its turn, so it is not inserted
+                if (error != null) {
+                    state.failure.compareAndSet(null, error);
+                }
+                //every chunk ends its turn, even a failed one, so the chunks after it are not blocked
+                state.endTurn(sequence);
+                state.slots.release();
+            }
+        });
+    }
+
+    /**
+     * Progress of one load, shared by the reader and the workers
+     */
+    private static class LoadState {
+        private final AtomicLong loaded = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong ignored = new AtomicLong();
+        private final AtomicLong evicted = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Semaphore slots;
+
+        //sequence number of the next chunk allowed into the cache
+        private long nextToInsert;
+
+        LoadState(int slots) {
+            this.slots = new Semaphore(slots);
+        }
+
+        //chunks are taken by the workers in sequence order, so the chunk waited for is always running and this cannot deadlock
+        synchronized void awaitTurn(long sequence) {
+            boolean interrupted = false;
+            while (nextToInsert != sequence) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        //waits for the turn first when the chunk failed before taking it
+        synchronized void endTurn(long sequence) {
+            awaitTurn(sequence);
+            nextToInsert = sequence + 1;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Outcome of a bulk load
+     */
+    public static class LoadResult {
+        private final long loaded;
+        private final long skipped;
+        private final long ignored;
+        private final long evicted;
+        private final long elapsedMillis;
+
+        LoadResult(long loaded, long skipped, long ignored, long evicted, long elapsedMillis) {
+            this.loaded = loaded;
+            this.skipped = skipped;
+            this.ignored = ignored;
+            this.evicted = evicted;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        //record lines inserted, a key repeated in the file counts once per line
+        public long getLoaded() {
+            return loaded;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        //record lines not inserted because a client wrote the key first
+        public long getIgnored() {
+            return ignored;
+        }
+
+        //records pushed out of the cache to stay within its capacity, a file larger than the cache keeps its end only
+        public long getEvicted() {
+            return evicted;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "loaded[" + loaded + "] skipped[" + skipped + "] ignored[" + ignored + "] evicted[" + evicted
+                    + "] elapsed[" + elapsedMillis + "ms]";
+        }
+    }
+}
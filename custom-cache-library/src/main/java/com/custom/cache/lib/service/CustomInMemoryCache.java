@@ -1,20 +1,40 @@
 package com.custom.cache.lib.service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.MapIterator;
-import org.apache.commons.collections.map.LRUMap;
 
 
 public class CustomInMemoryCache <K, T> {
 
    private long timeToLiveInMillis;
 
-   private LRUMap cacheMap;
+   private ScannableLRUMap cacheMap;
+
+   //hard limit given at construction, the LRUMap never grows beyond it
+   private final int maxItems;
+
+   //current limit, lowered below maxItems when the heap is under pressure
+   private volatile int capacity;
+
+   //evict in small batches so readers are not blocked for the whole shrink
+   private static final int EVICTION_BATCH = 100;
+
+   //report the 10 hottest / largest keys, counters are halved every minute
+   private static final int HOT_KEYS_TOP_K = 10;
+
+   private static final long HOT_KEYS_WINDOW_MILLIS = 60000;
+
+   private final HotKeyTracker<K> hotKeyTracker = new HotKeyTracker<K>(HOT_KEYS_TOP_K, HOT_KEYS_WINDOW_MILLIS);
 
    protected class CachedObject {
       public long lastAccessed = System.currentTimeMillis();
       public T value;
+      //written by a bulk load (loadAll), such a record can be replaced by a later record of the load
+      public boolean bulkLoaded;
 
       protected CachedObject(T value) {
          this.value = value;
@@ -28,6 +48,10 @@ public class CustomInMemoryCache <K, T> {
         from a fixed sized map.
       - For the expiration of items we can timestamp the last access and in a separate thread remove the items when the time to live 
         limit is reached. This is nice for reducing memory pressure for applications that have long idle time in between accessing the cached objects.
+      - The effective capacity can be lowered at runtime (see AdaptiveCapacityController), least recently used items are evicted
+        down to the new capacity and it can be raised back up to maxItems once memory pressure subsides.
+      - The content can be walked page by page with a cursor (scan), the lock is only held while one page is collected.
+      - Every get and put is recorded by a HotKeyTracker (fixed memory), so the hottest keys and the largest values can be reported at any time.
       - This custom in memory cache is thread safe.
     */
 
@@ -35,7 +59,10 @@ public class CustomInMemoryCache <K, T> {
      int maxItems) {
       this.timeToLiveInMillis = timeToLiveInSeconds * 1000;
 
-      cacheMap = new LRUMap(maxItems);
+      this.maxItems = maxItems;
+      this.capacity = maxItems;
+
+      cacheMap = new ScannableLRUMap(maxItems);
 
       if (timeToLiveInMillis > 0 && timerIntervalInSeconds > 0) {
 
@@ -62,11 +89,52 @@ public class CustomInMemoryCache <K, T> {
    public void put(K key, T value) {
       synchronized (cacheMap) {
          cacheMap.put(key, new CachedObject(value));
+         while (cacheMap.size() > capacity) {
+            cacheMap.remove(cacheMap.firstKey());
+         }
+      }
+      //tracked outside the cache lock, the tracker has its own
+      hotKeyTracker.recordAccess(key);
+      hotKeyTracker.recordValueSize(key, estimateSize(value));
+   }
+
+   //Added a batch of records into the cache under a single lock (bulk warm-up)
+   //a key written by put is kept and its record ignored (a client may write while the warm-up runs), only records written
+   //by a bulk load are replaced. Only the value sizes are tracked, a warm-up is not traffic and must not show up as hot keys
+   @SuppressWarnings("unchecked")
+   public BatchLoad<K> loadAll(Map<K, T> records) {
+      List<K> ignoredKeys = new ArrayList<K>();
+      int evicted;
+      synchronized (cacheMap) {
+         //the LRUMap evicts by itself once full, evictions are counted from the size
+         int expectedSize = cacheMap.size();
+         for (Map.Entry<K, T> record : records.entrySet()) {
+            CachedObject existing = (CachedObject) cacheMap.peek(record.getKey());
+            if (existing != null && !existing.bulkLoaded) {
+               ignoredKeys.add(record.getKey());
+               continue;
+            }
+            if (existing == null) {
+               expectedSize++;
+            }
+            CachedObject c = new CachedObject(record.getValue());
+            c.bulkLoaded = true;
+            cacheMap.put(record.getKey(), c);
+         }
+         while (cacheMap.size() > capacity) {
+            cacheMap.remove(cacheMap.firstKey());
+         }
+         evicted = expectedSize - cacheMap.size();
       }
+      for (Map.Entry<K, T> record : records.entrySet()) {
+         hotKeyTracker.recordValueSize(record.getKey(), estimateSize(record.getValue()));
+      }
+      return new BatchLoad<K>(ignoredKeys, evicted);
    }
 
    //fetch a record from the cache
    public T get(K key) {
+      hotKeyTracker.recordAccess(key);
       synchronized (cacheMap) {
          CachedObject c = (CachedObject) cacheMap.get(key);
 
@@ -79,6 +147,13 @@ public class CustomInMemoryCache <K, T> {
       }
    }
 
+   //check if a record exists, without counting as an access (hot keys, time to live and LRU order are unchanged)
+   public boolean containsKey(K key) {
+      synchronized (cacheMap) {
+         return cacheMap.containsKey(key);
+      }
+   }
+
    //remove a record from the cache
    public void remove(K key) {
       synchronized (cacheMap) {
@@ -93,6 +168,116 @@ public class CustomInMemoryCache <K, T> {
       }
    }
 
+   //fetch one page of records, starting at cursor 0 and ending when the returned cursor is 0 again
+   //keyPrefix (optional) filters the keys, so a page may hold fewer than count records (even none) before the end
+   //expired records are skipped and the access time / LRU order of the records is not changed
+   @SuppressWarnings("unchecked")
+   public ScanPage<K, T> scan(long cursor, String keyPrefix, int count) {
+      long now = System.currentTimeMillis();
+      Map<K, T> records = new LinkedHashMap<K, T>();
+      long nextCursor;
+
+      synchronized (cacheMap) {
+         nextCursor = cacheMap.scan(cursor, Math.max(1, count), (key, value) -> {
+            CachedObject c = (CachedObject) value;
+            if (keyPrefix != null && (key == null || !key.toString().startsWith(keyPrefix))) {
+               return;
+            }
+            if (timeToLiveInMillis > 0 && now > (timeToLiveInMillis + c.lastAccessed)) {
+               return;
+            }
+            records.put((K) key, c.value);
+         });
+      }
+      return new ScanPage<K, T>(nextCursor, records);
+   }
+
+   //current maximum number of records kept inside the cache
+   public int getCapacity() {
+      return capacity;
+   }
+
+   //upper bound the capacity can be raised to
+   public int getMaxCapacity() {
+      return maxItems;
+   }
+
+   //change the effective capacity (bounded by 1 and maxItems), evicting least recently used records when shrinking
+   //returns the number of records evicted
+   public int resize(int newCapacity) {
+      capacity = Math.max(1, Math.min(newCapacity, maxItems));
+
+      int evicted = 0;
+      boolean done = false;
+      while (!done) {
+         synchronized (cacheMap) {
+            for (int i = 0; i < EVICTION_BATCH && cacheMap.size() > capacity; i++) {
+               //LRUMap iterates from the least recently used record
+               cacheMap.remove(cacheMap.firstKey());
+               evicted++;
+            }
+            done = cacheMap.size() <= capacity;
+         }
+
+         Thread.yield();
+      }
+      return evicted;
+   }
+
+   //hot key and large key statistics of this cache
+   public HotKeyTracker<K> getHotKeyTracker() {
+      return hotKeyTracker;
+   }
+
+   //rough size in bytes of a cached value, only strings and byte arrays are measured
+   private static long estimateSize(Object value) {
+      if (value instanceof CharSequence) {
+         return ((CharSequence) value).length() * 2L;
+      }
+      if (value instanceof byte[]) {
+         return ((byte[]) value).length;
+      }
+      return 0;
+   }
+
+   //one page of a scan: records found and the cursor to pass to the next call (0 when the scan is complete)
+   public static class ScanPage<K, T> {
+      private final long cursor;
+      private final Map<K, T> records;
+
+      ScanPage(long cursor, Map<K, T> records) {
+         this.cursor = cursor;
+         this.records = records;
+      }
+
+      public long getCursor() {
+         return cursor;
+      }
+
+      public Map<K, T> getRecords() {
+         return records;
+      }
+   }
+
+   //outcome of a loadAll: keys kept as written by put and number of records evicted to stay within the capacity
+   public static class BatchLoad<K> {
+      private final List<K> ignoredKeys;
+      private final int evicted;
+
+      BatchLoad(List<K> ignoredKeys, int evicted) {
+         this.ignoredKeys = ignoredKeys;
+         this.evicted = evicted;
+      }
+
+      public List<K> getIgnoredKeys() {
+         return ignoredKeys;
+      }
+
+      public int getEvicted() {
+         return evicted;
+      }
+   }
+
    //performs clean up based on least used record and record beyond it's time to live
    //this method is useful to reduce the number of cache which growing overtime
    @SuppressWarnings("unchecked")
@@ -0,0 +1,297 @@
+package com.custom.cache.lib.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+public class HotKeyTracker<K> implements HotKeyTrackerMBean {
+
+    private static final int DEPTH = 4;
+
+    //must be a power of two, 4 x 2048 counters = 64KB regardless of the number of keys
+    private static final int WIDTH = 2048;
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final long[][] sketch = new long[DEPTH][WIDTH];
+
+    private final int topK;
+
+    private final long windowMillis;
+
+    private final LongSupplier clock;
+
+    private long windowStart;
+
+    //halved with the counters at every window, not reset
+    private long accessesInWindow;
+
+    private final Comparator<HotKey<K>> byWeight = (a, b) -> Long.compare(a.weight, b.weight);
+
+    private final Map<K, HotKey<K>> hotKeys = new HashMap<>();
+
+    private final PriorityQueue<HotKey<K>> hotHeap = new PriorityQueue<>(byWeight);
+
+    private final Map<K, HotKey<K>> largeKeys = new HashMap<>();
+
+    private final PriorityQueue<HotKey<K>> largeHeap = new PriorityQueue<>(byWeight);
+
+    /*
+      Here are the characteristic of the tracker:
+      - Access frequency of every key is estimated with a count-min sketch, memory stays fixed no matter how many distinct keys are used.
+      - Only the top K keys are remembered, inside a min-heap so the coldest candidate is replaced first by a hotter key.
+      - The top K largest values written into the cache are remembered the same way.
+      - Every time window the counters are halved, so the report reflects current traffic and not the whole uptime of the server.
+        A large value not written again for a full window is dropped from the report.
+      - This tracker is thread safe.
+    */
+    public HotKeyTracker(int topK, long windowMillis) {
+        this(topK, windowMillis, System::currentTimeMillis);
+    }
+
+    //clock can be replaced in tests
+    HotKeyTracker(int topK, long windowMillis, LongSupplier clock) {
+        this.topK = topK;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.windowStart = clock.getAsLong();
+    }
+
+    //record one access (get or put) to a key
+    public synchronized void recordAccess(K key) {
+        if (key == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        decayIfWindowElapsed(now);
+        accessesInWindow++;
+        offer(hotKeys, hotHeap, key, increment(key), now);
+    }
+
+    //record the estimated size in bytes of a value written for a key
+    public synchronized void recordValueSize(K key, long bytes) {
+        if (key == null || bytes <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        decayIfWindowElapsed(now);
+        offer(largeKeys, largeHeap, key, bytes, now);
+    }
+
+    //estimated number of accesses to a key in the current window (never underestimated)
+    public synchronized long estimate(K key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, sketch[i][index(hash, SEEDS[i])]);
+        }
+        return min;
+    }
+
+    //snapshot of the hottest and largest keys, sorted in descending order
+    public synchronized Report<K> report() {
+        decayIfWindowElapsed(clock.getAsLong());
+        return new Report<>(sorted(hotKeys), sorted(largeKeys), accessesInWindow, windowMillis);
+    }
+
+    @Override
+    public String[] getHotKeys() {
+        return toStrings(report().getHotKeys());
+    }
+
+    @Override
+    public String[] getLargeKeys() {
+        return toStrings(report().getLargeKeys());
+    }
+
+    @Override
+    public synchronized long getAccessesInWindow() {
+        decayIfWindowElapsed(clock.getAsLong());
+        return accessesInWindow;
+    }
+
+    @Override
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    @Override
+    public int getTopK() {
+        return topK;
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (long[] row : sketch) {
+            Arrays.fill(row, 0);
+        }
+        hotKeys.clear();
+        hotHeap.clear();
+        largeKeys.clear();
+        largeHeap.clear();
+        accessesInWindow = 0;
+        windowStart = clock.getAsLong();
+    }
+
+    //conservative update: only the counters equal to the current minimum are raised, which limits over-estimation
+    private long increment(K key) {
+        int hash = key.hashCode();
+        int[] indexes = new int[DEPTH];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            indexes[i] = index(hash, SEEDS[i]);
+            min = Math.min(min, sketch[i][indexes[i]]);
+        }
+        long estimate = min + 1;
+        for (int i = 0; i < DEPTH; i++) {
+            if (sketch[i][indexes[i]] < estimate) {
+                sketch[i][indexes[i]] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    private void offer(Map<K, HotKey<K>> keys, PriorityQueue<HotKey<K>> heap, K key, long weight, long now) {
+        HotKey<K> hotKey = keys.get(key);
+        if (hotKey != null) {
+            //heap holds at most topK entries, so the linear remove is cheap
+            heap.remove(hotKey);
+            hotKey.weight = weight;
+            hotKey.lastSeen = now;
+            heap.add(hotKey);
+        } else if (keys.size() < topK) {
+            hotKey = new HotKey<>(key, weight, now);
+            keys.put(key, hotKey);
+            heap.add(hotKey);
+        } else if (heap.peek().weight < weight) {
+            keys.remove(heap.poll().key);
+            hotKey = new HotKey<>(key, weight, now);
+            keys.put(key, hotKey);
+            heap.add(hotKey);
+        }
+    }
+
+    //halve every counter once per elapsed window, an idle period of many windows simply clears them
+    private void decayIfWindowElapsed(long now) {
+        long elapsedWindows = (now - windowStart) / windowMillis;
+        if (elapsedWindows <= 0) {
+            return;
+        }
+        int shift = (int) Math.min(elapsedWindows, 63);
+        for (long[] row : sketch) {
+            for (int i = 0; i < WIDTH; i++) {
+                row[i] >>>= shift;
+            }
+        }
+        accessesInWindow >>>= shift;
+        windowStart += elapsedWindows * windowMillis;
+
+        Iterator<HotKey<K>> itr = hotKeys.values().iterator();
+        while (itr.hasNext()) {
+            HotKey<K> hotKey = itr.next();
+            hotKey.weight >>>= shift;
+            if (hotKey.weight == 0) {
+                itr.remove();
+            }
+        }
+        hotHeap.clear();
+        hotHeap.addAll(hotKeys.values());
+
+        long oldest = windowStart - windowMillis;
+        largeKeys.values().removeIf(largeKey -> largeKey.lastSeen < oldest);
+        largeHeap.clear();
+        largeHeap.addAll(largeKeys.values());
+    }
+
+    private List<HotKey<K>> sorted(Map<K, HotKey<K>> keys) {
+        List<HotKey<K>> result = new ArrayList<>(keys.size());
+        for (HotKey<K> hotKey : keys.values()) {
+            result.add(new HotKey<>(hotKey.key, hotKey.weight, hotKey.lastSeen));
+        }
+        result.sort(byWeight.reversed());
+        return result;
+    }
+
+    private static <K> String[] toStrings(List<HotKey<K>> keys) {
+        String[] result = new String[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = keys.get(i).key + "=" + keys.get(i).weight;
+        }
+        return result;
+    }
+
+    private static int index(int hash, int seed) {
+        int h = hash ^ seed;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & (WIDTH - 1);
+    }
+
+    /**
+     * A reported key with its weight (estimated access count or estimated value size in bytes)
+     */
+    public static class HotKey<K> {
+        private final K key;
+        private long weight;
+        private transient long lastSeen;
+
+        HotKey(K key, long weight, long lastSeen) {
+            this.key = key;
+            this.weight = weight;
+            this.lastSeen = lastSeen;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Snapshot returned to `hotkeys_event` clients
+     */
+    public static class Report<K> {
+        private final List<HotKey<K>> hotKeys;
+        private final List<HotKey<K>> largeKeys;
+        private final long accessesInWindow;
+        private final long windowMillis;
+
+        Report(List<HotKey<K>> hotKeys, List<HotKey<K>> largeKeys, long accessesInWindow, long windowMillis) {
+            this.hotKeys = hotKeys;
+            this.largeKeys = largeKeys;
+            this.accessesInWindow = accessesInWindow;
+            this.windowMillis = windowMillis;
+        }
+
+        public List<HotKey<K>> getHotKeys() {
+            return hotKeys;
+        }
+
+        public List<HotKey<K>> getLargeKeys() {
+            return largeKeys;
+        }
+
+        public long getAccessesInWindow() {
+            return accessesInWindow;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+    }
+}
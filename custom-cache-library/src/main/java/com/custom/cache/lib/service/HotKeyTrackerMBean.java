@@ -0,0 +1,38 @@
+package com.custom.cache.lib.service;
+
+//JMX view of the hot key / large key tracker (registered by SocketIOServiceImpl)
+public interface HotKeyTrackerMBean {
+    /**
+     * Most frequently accessed keys in the current window
+     *
+     * @return: "key=estimatedCount" sorted from the hottest key
+     */
+    String[] getHotKeys();
+
+    /**
+     * Keys holding the largest values seen recently
+     *
+     * @return: "key=estimatedBytes" sorted from the largest value
+     */
+    String[] getLargeKeys();
+
+    /**
+     * Decayed number of accesses, halved every window like the key counters (same scale as the hot key counts)
+     */
+    long getAccessesInWindow();
+
+    /**
+     * Length of the decay window in milliseconds
+     */
+    long getWindowMillis();
+
+    /**
+     * Number of keys reported in each list
+     */
+    int getTopK();
+
+    /**
+     * Clear all counters and reported keys
+     */
+    void reset();
+}
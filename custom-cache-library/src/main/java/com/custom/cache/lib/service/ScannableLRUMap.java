@@ -0,0 +1,57 @@
+package com.custom.cache.lib.service;
+
+import org.apache.commons.collections.map.LRUMap;
+
+//LRUMap with a cursor based walk over its hash table and a lookup leaving the access order untouched, used by CustomInMemoryCache
+class ScannableLRUMap extends LRUMap {
+
+    private static final long serialVersionUID = 1L;
+
+    interface EntryVisitor {
+        void visit(Object key, Object value);
+    }
+
+    ScannableLRUMap(int maxSize) {
+        super(maxSize);
+    }
+
+    //value of a key, without changing the access order (get moves the key to the most recently used end)
+    Object peek(Object key) {
+        HashEntry entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /*
+      The cursor is a bucket index of the hash table, incremented on its reversed bits (same scheme as Redis SCAN):
+      - Each call only walks a few buckets, so the caller can release its lock between two calls.
+      - Every entry present for the whole walk is visited at least once, even if the table doubled in between
+        (some entries may then be visited twice). Entries added or removed during the walk may or may not be visited.
+      - The access order of the LRU is left untouched.
+    */
+    long scan(long cursor, int count, EntryVisitor visitor) {
+        if (size == 0) {
+            return 0;
+        }
+        long mask = data.length - 1;
+        //bound the work on a sparse table as well
+        int maxEmptyBuckets = count * 10;
+        int visited = 0;
+        long v = cursor & mask;
+        do {
+            HashEntry entry = data[(int) (v & mask)];
+            if (entry == null) {
+                maxEmptyBuckets--;
+            }
+            while (entry != null) {
+                visitor.visit(entry.getKey(), entry.getValue());
+                visited++;
+                entry = entryNext(entry);
+            }
+            v |= ~mask;
+            v = Long.reverse(v);
+            v++;
+            v = Long.reverse(v);
+        } while (v != 0 && visited < count && maxEmptyBuckets > 0);
+        return v;
+    }
+}
@@ -1,5 +1,7 @@
 package com.custom.cache.lib.service.impl;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -7,17 +9,25 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import com.corundumstudio.socketio.AckRequest;
 import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
+import com.custom.cache.lib.service.AdaptiveCapacityController;
+import com.custom.cache.lib.service.CacheBulkLoader;
 import com.custom.cache.lib.service.ISocketIOService;
 import com.custom.cache.lib.service.CustomInMemoryCache;
+import com.google.gson.Gson;
 
 import io.netty.util.internal.StringUtil;
 
@@ -60,9 +70,72 @@ public class SocketIOServiceImpl implements ISocketIOService {
      */
     private static final String PING_EVENT = "ping_event";
 
+    /**
+     * Custom Event`hotkeys_event` for service side to client communication
+     */
+    private static final String HOTKEYS_EVENT = "hotkeys_event";
+
+    /**
+     * Custom Event`batch_event` for service side to client communication
+     */
+    private static final String BATCH_EVENT = "batch_event";
+
+    /**
+     * Custom Event`scan_event` for service side to client communication
+     */
+    private static final String SCAN_EVENT = "scan_event";
+
+    /**
+     * Records per `scan_event` page when the client does not ask for a count, and the largest count accepted
+     */
+    private static final int DEFAULT_SCAN_COUNT = 100;
+
+    private static final int MAX_SCAN_COUNT = 1000;
+
+    /**
+     * JMX name of the cache hot key tracker
+     */
+    private static final String HOTKEYS_MBEAN_NAME = "com.custom.cache.lib:type=HotKeyTracker";
+
+    /**
+     * JMX name of the cache adaptive capacity controller
+     */
+    private static final String CAPACITY_MBEAN_NAME = "com.custom.cache.lib:type=AdaptiveCapacityController";
+
+    private final Gson gson = new Gson();
+
     @Autowired
     private SocketIOServer socketIOServer;
 
+    //Maximum number of records kept inside the cache, a warm-up file larger than that only keeps its last records
+    @Value("${cache.maxItems}")
+    private int cacheMaxItems;
+
+    //Shrink the cache when the old generation is above the high watermark, grow it back below the low watermark
+    @Value("${cache.adaptive.enabled}")
+    private boolean adaptiveEnabled;
+
+    @Value("${cache.adaptive.minItems}")
+    private int adaptiveMinItems;
+
+    @Value("${cache.adaptive.lowWatermark}")
+    private double adaptiveLowWatermark;
+
+    @Value("${cache.adaptive.highWatermark}")
+    private double adaptiveHighWatermark;
+
+    private AdaptiveCapacityController capacityController;
+
+    //Optional `key=value` file loaded into the cache at startup, in chunks of chunkSize records on `threads` workers
+    @Value("${cache.warmup.file}")
+    private String warmupFile;
+
+    @Value("${cache.warmup.chunkSize}")
+    private int warmupChunkSize;
+
+    @Value("${cache.warmup.threads}")
+    private int warmupThreads;
+
     /**
      * Spring IoC After the container is created, start after loading the SocketIOServiceImpl Bean
      */
@@ -81,8 +154,17 @@ public class SocketIOServiceImpl implements ISocketIOService {
 
     @Override
     public void start() {
-    	//this params can be configurable but for this sample, I'll just do the hardcoding
-    	CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<String, String>(200000, 500000, 1000);
+    	//time to live and cleanup interval are hardcoded for this sample, the capacity comes from cache.maxItems
+    	CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<String, String>(200000, 500000, cacheMaxItems);
+    	registerMBean(cache.getHotKeyTracker(), HOTKEYS_MBEAN_NAME);
+    	if (adaptiveEnabled) {
+    		capacityController = new AdaptiveCapacityController(cache, adaptiveMinItems, adaptiveLowWatermark, adaptiveHighWatermark);
+    		capacityController.start();
+    		registerMBean(capacityController, CAPACITY_MBEAN_NAME);
+    	}
+    	if (!StringUtil.isNullOrEmpty(warmupFile)) {
+    		warmUp(cache);
+    	}
     	
         // Listen for client connections
         socketIOServer.addConnectListener(client -> {
@@ -116,25 +198,10 @@ public class SocketIOServiceImpl implements ISocketIOService {
         // Custom Event`remove_event` ->Listen for client messages
         socketIOServer.addEventListener(REMOVE_EVENT, String.class, (client, data, ackSender) -> {            
             String clientIp = getIpByClient(client);
-            String message = "";
-            if(!StringUtil.isNullOrEmpty(data)) {
-            	try {
-            		if(!StringUtil.isNullOrEmpty(cache.get(data))) {
-		            	cache.remove(data);
-		            	message = "Remove record successfully into cache";
-            		} else {
-            			message = "Record does not exist inside cache";
-            		}
-            	} catch(Exception ex) {
-            		ex.printStackTrace();
-            		message = "Error removing data from cache "+ex.getMessage();
-            	}
-            } else {
-            	message = "Invalid parameter";
-            }
+            String message = removeRecord(cache, data);
             System.out.println("message["+message+"]");
 //            logger.debug("message["+message+"]");
-            pushMessageToUser(REMOVE_EVENT, getParamsByClient(client), message);
+            reply(client, ackSender, REMOVE_EVENT, message);
             System.out.println(clientIp + " REMOVE_EVENT ************ key[" + data +"]");
 //            logger.debug(clientIp + " REMOVE_EVENT ************ key[" + data +"]");
         });
@@ -145,24 +212,14 @@ public class SocketIOServiceImpl implements ISocketIOService {
             String clientIp = getIpByClient(client);
             String message = "";
             if(!StringUtil.isNullOrEmpty(data) && data.contains("=")) {
-            	try {
-	            	String[] strs = data.split("=");
-	            	if(StringUtil.isNullOrEmpty(cache.get(strs[0]))) {
-	            		cache.put(strs[0], strs[1]);
-		            	message = "Insert record successfully into cache key["+strs[0]+"] value["+strs[1]+"]";
-	            	} else {
-	            		message = "Record exist inside cache";
-	            	}
-            	} catch(Exception ex) {
-            		ex.printStackTrace();
-            		message = "Error inserting into cache "+ex.getMessage();
-            	}
+            	String[] strs = data.split("=");
+            	message = putRecord(cache, strs[0], strs.length > 1 ? strs[1] : null);
             } else {
             	message = "Invalid parameter";
             }
             System.out.println("message["+message+"]");
 //          logger.debug("message["+message+"]");
-            pushMessageToUser(PUT_EVENT, getParamsByClient(client), message);
+            reply(client, ackSender, PUT_EVENT, message);
             System.out.println(clientIp + " PUT_EVENT ************ data[" + data +"]");
 //          logger.debug(clientIp + " PUT_EVENT ************ data[" + data +"]");
         });
@@ -170,15 +227,17 @@ public class SocketIOServiceImpl implements ISocketIOService {
         // Custom Event`get_event` ->Listen for client messages
         socketIOServer.addEventListener(GET_EVENT, String.class, (client, data, ackSender) -> {
             String clientIp = getIpByClient(client);
-            pushMessageToUser(GET_EVENT, getParamsByClient(client), cache.get(data));
-            System.out.println(clientIp + " GET_EVENT ************ key[" + data+ "] value["+ cache.get(data)+ "]");
-//            logger.debug(clientIp + " GET_EVENT ************ key[" + data+ "] value["+ cache.get(data)+ "]");
+            //single lookup so the hot key tracker counts one access per request
+            String value = cache.get(data);
+            reply(client, ackSender, GET_EVENT, value);
+            System.out.println(clientIp + " GET_EVENT ************ key[" + data+ "] value["+ value+ "]");
+//            logger.debug(clientIp + " GET_EVENT ************ key[" + data+ "] value["+ value+ "]");
         });
         
         // Custom Event`check_size_event` ->Listen for client messages
         socketIOServer.addEventListener(CHECK_SIZE_EVENT, String.class, (client, data, ackSender) -> {
             String clientIp = getIpByClient(client);
-            pushMessageToUser(CHECK_SIZE_EVENT, getParamsByClient(client), cache.size()+"");
+            reply(client, ackSender, CHECK_SIZE_EVENT, cache.size()+"");
             System.out.println(clientIp + " CHECK_SIZE_EVENT ************ key[" + data+ "] cache size["+ cache.size() + "]");
 //          logger.debug(clientIp + " CHECK_SIZE_EVENT ************ key[" + data+ "] cache size["+ cache.size() + "]");
         });
@@ -187,12 +246,62 @@ public class SocketIOServiceImpl implements ISocketIOService {
         // reply for a greeting from client
         socketIOServer.addEventListener(PING_EVENT, String.class, (client, data, ackSender) -> {
             String clientIp = getIpByClient(client);
-            pushMessageToUser(PING_EVENT, getParamsByClient(client), "Greeting "+new Date());
+            reply(client, ackSender, PING_EVENT, "Greeting "+new Date());
             System.out.println(clientIp + " PING_EVENT ************ Receive ping message[" + data+"]");
 //            logger.info(clientIp + " PING_EVENT ************ Receive ping message[" + data+"]");
         });
 
-       
+
+        // Custom Event`hotkeys_event` ->Listen for client messages
+        // reply with the hottest keys and the largest values of the current window
+        socketIOServer.addEventListener(HOTKEYS_EVENT, String.class, (client, data, ackSender) -> {
+            String clientIp = getIpByClient(client);
+            String report = gson.toJson(cache.getHotKeyTracker().report());
+            reply(client, ackSender, HOTKEYS_EVENT, report);
+            System.out.println(clientIp + " HOTKEYS_EVENT ************ report[" + report + "]");
+//            logger.debug(clientIp + " HOTKEYS_EVENT ************ report[" + report + "]");
+        });
+
+        // Custom Event`scan_event` ->Listen for client messages
+        // one page of records as {"cursor":..,"records":{..}}, request is {"cursor":0,"prefix":"A","count":100} (all optional),
+        // start with cursor 0 and call again with the returned cursor until it is 0
+        socketIOServer.addEventListener(SCAN_EVENT, String.class, (client, data, ackSender) -> {
+            String clientIp = getIpByClient(client);
+            String message = "";
+            try {
+            	ScanRequest request = StringUtil.isNullOrEmpty(data) ? new ScanRequest() : gson.fromJson(data, ScanRequest.class);
+            	int count = request.count > 0 ? Math.min(request.count, MAX_SCAN_COUNT) : DEFAULT_SCAN_COUNT;
+            	message = gson.toJson(cache.scan(request.cursor, request.prefix, count));
+            } catch(RuntimeException ex) {
+            	message = "Invalid parameter";
+            }
+            reply(client, ackSender, SCAN_EVENT, message);
+            System.out.println(clientIp + " SCAN_EVENT ************ request[" + data + "]");
+//            logger.debug(clientIp + " SCAN_EVENT ************ request[" + data + "]");
+        });
+
+        // Custom Event`batch_event` ->Listen for client messages
+        // several get/put/remove requests sent in one frame as a JSON array of {op, key, value},
+        // the replies are returned as a JSON array in the same order
+        socketIOServer.addEventListener(BATCH_EVENT, String.class, (client, data, ackSender) -> {
+            String clientIp = getIpByClient(client);
+            String message = "";
+            int size = 0;
+            try {
+            	BatchOperation[] operations = gson.fromJson(data, BatchOperation[].class);
+            	String[] results = new String[operations.length];
+            	for (int i = 0; i < operations.length; i++) {
+            		results[i] = execute(cache, operations[i]);
+            	}
+            	size = operations.length;
+            	message = gson.toJson(results);
+            } catch(RuntimeException ex) {
+            	message = "Invalid parameter";
+            }
+            reply(client, ackSender, BATCH_EVENT, message);
+            System.out.println(clientIp + " BATCH_EVENT ************ operations[" + size + "]");
+//            logger.debug(clientIp + " BATCH_EVENT ************ operations[" + size + "]");
+        });
 
         // Broadcast: The default is to broadcast to all socket connections (
         /*
@@ -218,6 +327,12 @@ public class SocketIOServiceImpl implements ISocketIOService {
             socketIOServer.stop();
             socketIOServer = null;
         }
+        if (capacityController != null) {
+            capacityController.stop();
+            capacityController = null;
+        }
+        unregisterMBean(HOTKEYS_MBEAN_NAME);
+        unregisterMBean(CAPACITY_MBEAN_NAME);
     }
 
     //Push message to client
@@ -229,6 +344,147 @@ public class SocketIOServiceImpl implements ISocketIOService {
         }
     }
 
+    /**
+     * Load the warm-up file into the cache in background, the server accepts clients meanwhile (keys they write are kept)
+     *
+     * @param cache: Cache
+     */
+    private void warmUp(CustomInMemoryCache<String, String> cache) {
+        new Thread(() -> {
+            try {
+                CacheBulkLoader.LoadResult result = new CacheBulkLoader(cache, warmupChunkSize, warmupThreads).load(Paths.get(warmupFile));
+                logger.info("Cache warm-up from[" + warmupFile + "] " + result);
+            } catch (Exception ex) {
+                logger.warn("Cache warm-up from[" + warmupFile + "] failed", ex);
+            }
+        }, "cache-warmup").start();
+    }
+
+    /**
+     * Insert a record into the cache if the key is not used yet
+     *
+     * @param cache: Cache
+     * @param key:   Record key
+     * @param value: Record value
+     * @return: java.lang.String result message
+     */
+    private String putRecord(CustomInMemoryCache<String, String> cache, String key, String value) {
+        if(StringUtil.isNullOrEmpty(key) || StringUtil.isNullOrEmpty(value)) {
+        	return "Invalid parameter";
+        }
+        try {
+        	if(!cache.containsKey(key)) {
+        		cache.put(key, value);
+        		return "Insert record successfully into cache key["+key+"] value["+value+"]";
+        	} else {
+        		return "Record exist inside cache";
+        	}
+        } catch(Exception ex) {
+        	ex.printStackTrace();
+        	return "Error inserting into cache "+ex.getMessage();
+        }
+    }
+
+    /**
+     * Remove a record from the cache
+     *
+     * @param cache: Cache
+     * @param key:   Record key
+     * @return: java.lang.String result message
+     */
+    private String removeRecord(CustomInMemoryCache<String, String> cache, String key) {
+        if(StringUtil.isNullOrEmpty(key)) {
+        	return "Invalid parameter";
+        }
+        try {
+        	if(cache.containsKey(key)) {
+        		cache.remove(key);
+        		return "Remove record successfully into cache";
+        	} else {
+        		return "Record does not exist inside cache";
+        	}
+        } catch(Exception ex) {
+        	ex.printStackTrace();
+        	return "Error removing data from cache "+ex.getMessage();
+        }
+    }
+
+    /**
+     * Run one operation of a `batch_event`
+     *
+     * @param cache:     Cache
+     * @param operation: get, put or remove request
+     * @return: java.lang.String value for get, result message otherwise
+     */
+    private String execute(CustomInMemoryCache<String, String> cache, BatchOperation operation) {
+        if (operation == null || operation.op == null) {
+            return "Invalid parameter";
+        }
+        switch (operation.op) {
+            case "get":
+                return StringUtil.isNullOrEmpty(operation.key) ? null : cache.get(operation.key);
+            case "put":
+                return putRecord(cache, operation.key, operation.value);
+            case "remove":
+                return removeRecord(cache, operation.key);
+            default:
+                return "Invalid parameter";
+        }
+    }
+
+    /**
+     * Answer a client request: through the ack callback when the client asked for one (CacheClient),
+     * otherwise by pushing the event back to the user
+     *
+     * @param client:     Client
+     * @param ackSender:  Ack of the request
+     * @param event:      Event name
+     * @param msgContent: Message Content
+     */
+    private void reply(SocketIOClient client, AckRequest ackSender, String event, String msgContent) {
+        if (ackSender.isAckRequested()) {
+            ackSender.sendAckData(msgContent);
+        } else {
+            pushMessageToUser(event, getParamsByClient(client), msgContent);
+        }
+    }
+
+    /**
+     * Expose a cache statistics bean through the platform MBean server (replacing a previous registration)
+     *
+     * @param mbean: Standard MBean
+     * @param name:  JMX object name
+     */
+    private void registerMBean(Object mbean, String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(mbean, objectName);
+        } catch (JMException ex) {
+            logger.warn("Unable to register MBean[" + name + "]", ex);
+        }
+    }
+
+    /**
+     * Remove a cache statistics bean from the platform MBean server
+     *
+     * @param name: JMX object name
+     */
+    private void unregisterMBean(String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            logger.warn("Unable to unregister MBean[" + name + "]", ex);
+        }
+    }
+
     /**
      * Get the userId parameter in the client url (modified here to suit individual needs and client side)
      *
@@ -245,6 +501,24 @@ public class SocketIOServiceImpl implements ISocketIOService {
         return null;
     }
 
+    /**
+     * One request of a `batch_event` frame
+     */
+    private static class BatchOperation {
+        private String op;
+        private String key;
+        private String value;
+    }
+
+    /**
+     * Request of a `scan_event`
+     */
+    private static class ScanRequest {
+        private long cursor;
+        private String prefix;
+        private int count;
+    }
+
     /**
      * Get the connected client ip address
      *
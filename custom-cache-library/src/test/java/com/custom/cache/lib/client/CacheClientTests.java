@@ -0,0 +1,231 @@
+package com.custom.cache.lib.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.corundumstudio.socketio.AckMode;
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketConfig;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.listener.DataListener;
+
+//Runs CacheClient against the socket.io cache server started in-process by the Spring context
+@SpringBootTest(properties = "socketio.port=18959")
+class CacheClientTests {
+
+	private static final String URL = "http://127.0.0.1:18959";
+
+	//port of the throwaway servers stopped and restarted by the reconnection tests
+	private static final int RETRY_PORT = 18962;
+
+	private static final String RETRY_URL = "http://127.0.0.1:" + RETRY_PORT;
+
+	private static final AtomicInteger batchFrames = new AtomicInteger();
+
+	private static boolean countingBatchFrames;
+
+	@Autowired
+	private SocketIOServer socketIOServer;
+
+	private CacheClient client;
+
+	@BeforeEach
+	void connect() throws Exception {
+		//count the `batch_event` frames reaching the server, the service listener still answers them
+		if (!countingBatchFrames) {
+			socketIOServer.addEventListener(CacheClient.BATCH_EVENT, String.class, (socket, data, ackSender) -> batchFrames.incrementAndGet());
+			countingBatchFrames = true;
+		}
+		CacheClientOptions options = new CacheClientOptions();
+		options.poolSize = 2;
+		client = new CacheClient(URL, options).connect();
+	}
+
+	@AfterEach
+	void close() {
+		client.close();
+	}
+
+	@Test
+	void putGetRemove() throws Exception {
+		assertTrue(client.put("T001", "Name:Ron;Age:20").get(5, TimeUnit.SECONDS).startsWith("Insert record successfully"));
+		assertEquals("Name:Ron;Age:20", client.get("T001").get(5, TimeUnit.SECONDS));
+		assertEquals("Remove record successfully into cache", client.remove("T001").get(5, TimeUnit.SECONDS));
+		assertNull(client.get("T001").get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void putWithEqualsSignInValue() throws Exception {
+		client.put("T002", "a=b").get(5, TimeUnit.SECONDS);
+		assertEquals("a=b", client.get("T002").get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void concurrentRequestsAreBatched() throws Exception {
+		int framesBefore = batchFrames.get();
+		List<CompletableFuture<String>> puts = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			puts.add(client.put("B" + i, "value" + i));
+		}
+		CompletableFuture.allOf(puts.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		List<CompletableFuture<String>> gets = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			gets.add(client.get("B" + i));
+		}
+		for (int i = 0; i < 200; i++) {
+			assertEquals("value" + i, gets.get(i).get(10, TimeUnit.SECONDS));
+		}
+		int frames = batchFrames.get() - framesBefore;
+		assertTrue(frames > 0 && frames < 100, "400 requests sent in " + frames + " batch frames");
+	}
+
+	@Test
+	void inFlightRequestIsRetriedAfterReconnection() throws Exception {
+		Semaphore received = new Semaphore(0);
+		SocketIOServer server = startServer((socket, data, ackSender) -> received.release());
+		try (CacheClient retrying = new CacheClient(RETRY_URL, retryOptions(2)).connect()) {
+			CompletableFuture<String> value = retrying.get("R001");
+			assertTrue(received.tryAcquire(5, TimeUnit.SECONDS));
+
+			server.stop();
+			server = startServer((socket, data, ackSender) -> ackSender.sendAckData("value of " + data));
+			assertEquals("value of R001", value.get(15, TimeUnit.SECONDS));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	void inFlightRequestFailsOnceRetriesAreUsedUp() throws Exception {
+		Semaphore received = new Semaphore(0);
+		DataListener<String> neverAnswer = (socket, data, ackSender) -> received.release();
+		SocketIOServer server = startServer(neverAnswer);
+		try (CacheClient retrying = new CacheClient(RETRY_URL, retryOptions(1)).connect()) {
+			CompletableFuture<String> value = retrying.get("R002");
+			assertTrue(received.tryAcquire(5, TimeUnit.SECONDS));
+
+			server.stop();
+			server = startServer(neverAnswer);
+			assertTrue(received.tryAcquire(15, TimeUnit.SECONDS));
+			assertFalse(value.isDone());
+
+			server.stop();
+			ExecutionException ex = assertThrows(ExecutionException.class, () -> value.get(10, TimeUnit.SECONDS));
+			assertTrue(ex.getCause() instanceof IOException);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	void requestTimesOutWithoutServer() throws Exception {
+		CacheClientOptions options = new CacheClientOptions();
+		options.requestTimeoutMillis = 300;
+		try (CacheClient unreachable = new CacheClient("http://127.0.0.1:18960", options).connect()) {
+			ExecutionException ex = assertThrows(ExecutionException.class,
+					() -> unreachable.get("T003").get(5, TimeUnit.SECONDS));
+			assertTrue(ex.getCause() instanceof TimeoutException);
+		}
+	}
+
+	@Test
+	void timedOutRequestsDoNotStayQueuedWhileServerIsDown() throws Exception {
+		CacheClientOptions options = new CacheClientOptions();
+		options.requestTimeoutMillis = 200;
+		try (CacheClient unreachable = new CacheClient("http://127.0.0.1:18960", options).connect()) {
+			List<CompletableFuture<String>> gets = new ArrayList<>();
+			for (int i = 0; i < 500; i++) {
+				gets.add(unreachable.get("W" + i));
+			}
+			for (CompletableFuture<String> get : gets) {
+				assertThrows(ExecutionException.class, () -> get.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(0, unreachable.waitingCount());
+		}
+	}
+
+	@Test
+	void requestsRacingWithCloseFailWithClosedClient() throws Exception {
+		CacheClientOptions options = new CacheClientOptions();
+		options.requestTimeoutMillis = 60000;
+		CacheClient closing = new CacheClient("http://127.0.0.1:18960", options).connect();
+		List<CompletableFuture<String>> requests = Collections.synchronizedList(new ArrayList<>());
+		List<Throwable> escaped = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch started = new CountDownLatch(4);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				started.countDown();
+				try {
+					for (int i = 0; i < 20000; i++) {
+						requests.add(closing.get("C" + i));
+					}
+				} catch (Throwable ex) {
+					escaped.add(ex);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		started.await();
+		closing.close();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(Collections.emptyList(), escaped);
+		//the request timeout is far away, every request has been completed by close()
+		for (CompletableFuture<String> request : requests) {
+			ExecutionException ex = assertThrows(ExecutionException.class, () -> request.get(1, TimeUnit.SECONDS));
+			assertTrue(ex.getCause() instanceof IOException);
+		}
+	}
+
+	private static CacheClientOptions retryOptions(int maxRetries) {
+		CacheClientOptions options = new CacheClientOptions();
+		options.poolSize = 1;
+		options.maxRetries = maxRetries;
+		options.batchWindowMillis = 0;
+		options.requestTimeoutMillis = 30000;
+		options.reconnectionDelayMillis = 100;
+		return options;
+	}
+
+	//server answering `get_event` with the given listener only, acks are manual so a request can stay in flight
+	private static SocketIOServer startServer(DataListener<String> getListener) {
+		SocketConfig socketConfig = new SocketConfig();
+		socketConfig.setReuseAddress(true);
+		Configuration config = new Configuration();
+		config.setSocketConfig(socketConfig);
+		config.setHostname("127.0.0.1");
+		config.setPort(RETRY_PORT);
+		config.setAckMode(AckMode.MANUAL);
+		SocketIOServer server = new SocketIOServer(config);
+		server.addEventListener("get_event", String.class, getListener);
+		server.start();
+		return server;
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.custom.cache.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveCapacityControllerTests {
+
+	private final AtomicLong now = new AtomicLong(1000000);
+
+	private final StubOccupancy occupancy = new StubOccupancy();
+
+	private CustomInMemoryCache<String, String> cache;
+
+	private AdaptiveCapacityController controller;
+
+	@BeforeEach
+	void fillCache() {
+		cache = new CustomInMemoryCache<String, String>(0, 0, 1000);
+		for (int i = 0; i < 1000; i++) {
+			cache.put("K" + i, "V" + i);
+		}
+		controller = new AdaptiveCapacityController(cache, 100, 0.60, 0.85, occupancy, now::get);
+	}
+
+	@Test
+	void staleReadingDoesNotShrink() {
+		occupancy.afterCollection = 0.90;
+		occupancy.current = 0.90;
+		occupancy.collected = false;
+		controller.evaluate(true);
+		controller.evaluate(false);
+		now.addAndGet(AdaptiveCapacityController.SHRINK_COOLDOWN_MILLIS);
+		controller.evaluate(true);
+		assertEquals(1000, cache.getCapacity());
+		assertEquals(0, controller.getShrinkCount());
+	}
+
+	@Test
+	void memoryPoolReadingIsFreshOnlyWhenCollectionUsageChanged() {
+		AtomicLong collectionUsed = new AtomicLong(200);
+		AdaptiveCapacityController.MemoryPoolOccupancy pools =
+				new AdaptiveCapacityController.MemoryPoolOccupancy(Collections.singletonList(oldGenPool(collectionUsed)));
+		//the reading found at startup is not fresh
+		assertFalse(pools.collectedSinceLastCheck());
+
+		collectionUsed.set(900);
+		assertTrue(pools.collectedSinceLastCheck());
+		assertEquals(0.90, pools.afterCollection(), 0.001);
+		//young collections leave the collection usage untouched
+		assertFalse(pools.collectedSinceLastCheck());
+		assertFalse(pools.collectedSinceLastCheck());
+	}
+
+	@Test
+	void youngCollectionsDoNotShrinkOnAStaleReading() {
+		//G1 case: a full collection left 90% in the old generation, then the heap is emptied by young collections only
+		AtomicLong collectionUsed = new AtomicLong(100);
+		AdaptiveCapacityController.MemoryPoolOccupancy pools =
+				new AdaptiveCapacityController.MemoryPoolOccupancy(Collections.singletonList(oldGenPool(collectionUsed)));
+		controller = new AdaptiveCapacityController(cache, 100, 0.60, 0.85, pools, now::get);
+
+		collectionUsed.set(900);
+		controller.evaluate(true);
+		assertEquals(750, cache.getCapacity());
+
+		for (int i = 0; i < 10; i++) {
+			now.addAndGet(AdaptiveCapacityController.SHRINK_COOLDOWN_MILLIS);
+			controller.evaluate(true);
+		}
+		assertEquals(1, controller.getShrinkCount());
+		//the heap is empty, the capacity grows back instead
+		assertEquals(1000, cache.getCapacity());
+	}
+
+	@Test
+	void shrinkWaitsForCooldown() {
+		occupancy.afterCollection = 0.90;
+		controller.evaluate(true);
+		assertEquals(750, cache.getCapacity());
+		assertEquals(750, cache.size());
+
+		controller.evaluate(true);
+		assertEquals(750, cache.getCapacity());
+
+		now.addAndGet(AdaptiveCapacityController.SHRINK_COOLDOWN_MILLIS);
+		controller.evaluate(true);
+		assertEquals(562, cache.getCapacity());
+		assertEquals(2, controller.getShrinkCount());
+		assertEquals(438, controller.getEvictedCount());
+	}
+
+	@Test
+	void shrinkStopsAtMinCapacity() {
+		occupancy.afterCollection = 0.90;
+		for (int i = 0; i < 20; i++) {
+			controller.evaluate(true);
+			now.addAndGet(AdaptiveCapacityController.SHRINK_COOLDOWN_MILLIS);
+		}
+		assertEquals(100, cache.getCapacity());
+		assertEquals(100, cache.size());
+	}
+
+	@Test
+	void growWaitsForCooldownAndStopsAtMaxCapacity() {
+		cache.resize(700);
+		occupancy.current = 0.10;
+
+		controller.evaluate(false);
+		assertEquals(875, cache.getCapacity());
+
+		controller.evaluate(false);
+		assertEquals(875, cache.getCapacity());
+
+		for (int i = 0; i < 5; i++) {
+			now.addAndGet(AdaptiveCapacityController.GROW_COOLDOWN_MILLIS);
+			controller.evaluate(false);
+		}
+		assertEquals(1000, cache.getCapacity());
+		assertEquals(2, controller.getGrowCount());
+	}
+
+	@Test
+	void noGrowRightAfterShrink() {
+		occupancy.afterCollection = 0.90;
+		controller.evaluate(true);
+		occupancy.afterCollection = 0.10;
+		occupancy.current = 0.10;
+		controller.evaluate(true);
+		assertEquals(750, cache.getCapacity());
+
+		now.addAndGet(AdaptiveCapacityController.GROW_COOLDOWN_MILLIS);
+		controller.evaluate(true);
+		assertEquals(937, cache.getCapacity());
+	}
+
+	private static class StubOccupancy implements AdaptiveCapacityController.OccupancySource {
+		private double afterCollection;
+		private double current;
+		private boolean collected = true;
+
+		@Override
+		public double afterCollection() {
+			return afterCollection;
+		}
+
+		@Override
+		public double current() {
+			return current;
+		}
+
+		@Override
+		public boolean collectedSinceLastCheck() {
+			return collected;
+		}
+	}
+
+	//old generation pool of 1000 bytes, current usage 0, collection usage read from collectionUsed
+	private static MemoryPoolMXBean oldGenPool(AtomicLong collectionUsed) {
+		return (MemoryPoolMXBean) Proxy.newProxyInstance(MemoryPoolMXBean.class.getClassLoader(), new Class<?>[]{MemoryPoolMXBean.class},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getName":
+						return "G1 Old Gen";
+					case "isCollectionUsageThresholdSupported":
+						return true;
+					case "getCollectionUsage":
+						return new MemoryUsage(0, collectionUsed.get(), 1000, 1000);
+					case "getUsage":
+						return new MemoryUsage(0, 0, 1000, 1000);
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+}
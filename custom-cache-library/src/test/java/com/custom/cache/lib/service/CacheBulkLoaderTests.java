@@ -0,0 +1,172 @@
+package com.custom.cache.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CacheBulkLoaderTests {
+
+	private final List<Path> files = new ArrayList<>();
+
+	@AfterEach
+	void deleteFiles() throws IOException {
+		for (Path file : files) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void lastLineWinsForRepeatedKeys() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int round = 0; round < 100; round++) {
+			for (int i = 0; i < 200; i++) {
+				lines.add("K" + i + "=round" + round);
+			}
+		}
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(0, 0, 1000);
+		CacheBulkLoader.LoadResult result = new CacheBulkLoader(cache, 150, 4).load(write(lines));
+
+		assertEquals(20000, result.getLoaded());
+		assertEquals(0, result.getSkipped());
+		assertEquals(200, cache.size());
+		for (int i = 0; i < 200; i++) {
+			assertEquals("round99", cache.get("K" + i));
+		}
+	}
+
+	@Test
+	void smallCacheKeepsTheEndOfTheFile() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			lines.add("K" + i + "=V" + i);
+		}
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(0, 0, 100);
+		CacheBulkLoader.LoadResult result = new CacheBulkLoader(cache, 64, 4).load(write(lines));
+
+		assertEquals(5000, result.getLoaded());
+		assertEquals(4900, result.getEvicted());
+		assertEquals(100, cache.size());
+		assertNull(cache.get("K4899"));
+		for (int i = 4900; i < 5000; i++) {
+			assertEquals("V" + i, cache.get("K" + i));
+		}
+	}
+
+	@Test
+	void recordWrittenByClientDuringLoadIsKept() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 1000; i++) {
+				lines.add("K" + i + "=file" + round);
+			}
+		}
+		AtomicInteger inserts = new AtomicInteger();
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<String, String>(0, 0, 2000) {
+			@Override
+			public BatchLoad<String> loadAll(Map<String, String> records) {
+				//chunks go in file order: K0-K99 first, K950-K999 in the 10th chunk of each round
+				if (inserts.incrementAndGet() == 3) {
+					put("K50", "client");
+					put("K950", "client");
+				}
+				return super.loadAll(records);
+			}
+		};
+		CacheBulkLoader.LoadResult result = new CacheBulkLoader(cache, 100, 4).load(write(lines));
+
+		assertEquals("client", cache.get("K50"));
+		assertEquals("client", cache.get("K950"));
+		assertEquals("file1", cache.get("K49"));
+		//K50 ignored in the second round, K950 in both
+		assertEquals(3, result.getIgnored());
+		assertEquals(1997, result.getLoaded());
+	}
+
+	@Test
+	void blankCommentAndMalformedLines() throws Exception {
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(0, 0, 100);
+		CacheBulkLoader.LoadResult result = new CacheBulkLoader(cache, 2, 2).load(write(Arrays.asList(
+				"# warm-up file", "", "T001=Name:Ron", "no separator", "=no key", "T002=a=b", "")));
+
+		assertEquals(2, result.getLoaded());
+		assertEquals(2, result.getSkipped());
+		assertEquals("Name:Ron", cache.get("T001"));
+		assertEquals("a=b", cache.get("T002"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void workerFailureStopsTheLoad() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			lines.add("K" + i + "=V" + i);
+		}
+		IllegalStateException failure = new IllegalStateException("cache unavailable");
+		AtomicInteger inserts = new AtomicInteger();
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<String, String>(0, 0, 200000) {
+			@Override
+			public BatchLoad<String> loadAll(Map<String, String> records) {
+				if (inserts.incrementAndGet() == 3) {
+					throw failure;
+				}
+				return super.loadAll(records);
+			}
+		};
+		Path file = write(lines);
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> new CacheBulkLoader(cache, 100, 4).load(file));
+		assertSame(failure, thrown);
+		//the chunks after the failed one are not inserted, the reader stops within a few chunks
+		assertEquals(200, cache.size());
+		assertTrue(inserts.get() < 1000, "loadAll called " + inserts.get() + " times");
+	}
+
+	@Test
+	void errorStopsTheLoadWithoutHanging() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			lines.add("K" + i + "=V" + i);
+		}
+		OutOfMemoryError failure = new OutOfMemoryError("Java heap space");
+		AtomicInteger inserts = new AtomicInteger();
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<String, String>(0, 0, 200000) {
+			@Override
+			public BatchLoad<String> loadAll(Map<String, String> records) {
+				if (inserts.incrementAndGet() == 3) {
+					throw failure;
+				}
+				return super.loadAll(records);
+			}
+		};
+		Path file = write(lines);
+
+		OutOfMemoryError thrown = assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> assertThrows(OutOfMemoryError.class, () -> new CacheBulkLoader(cache, 100, 4).load(file)));
+		assertSame(failure, thrown);
+		assertEquals(200, cache.size());
+	}
+
+	private Path write(List<String> lines) throws IOException {
+		Path file = Files.createTempFile("cache-warmup", ".txt");
+		files.add(file);
+		return Files.write(file, lines, StandardCharsets.UTF_8);
+	}
+
+}
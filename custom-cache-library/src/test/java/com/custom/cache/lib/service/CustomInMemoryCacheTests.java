@@ -0,0 +1,72 @@
+package com.custom.cache.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CustomInMemoryCacheTests {
+
+	@Test
+	void scanWalksEveryRecordOnce() {
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(0, 0, 1000);
+		for (int i = 0; i < 500; i++) {
+			cache.put("K" + i, "V" + i);
+		}
+
+		Map<String, String> found = scanAll(cache, null, 37);
+		assertEquals(500, found.size());
+		for (int i = 0; i < 500; i++) {
+			assertEquals("V" + i, found.get("K" + i));
+		}
+	}
+
+	@Test
+	void scanFiltersOnKeyPrefix() {
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(0, 0, 1000);
+		for (int i = 0; i < 300; i++) {
+			cache.put((i % 3 == 0 ? "user:" : "order:") + i, "V" + i);
+		}
+
+		Map<String, String> found = scanAll(cache, "user:", 10);
+		assertEquals(100, found.size());
+		for (String key : found.keySet()) {
+			assertTrue(key.startsWith("user:"), key);
+		}
+	}
+
+	@Test
+	void scanSkipsExpiredRecords() throws Exception {
+		//no cleanup thread (timer interval 0), the expired records are still in the map
+		CustomInMemoryCache<String, String> cache = new CustomInMemoryCache<>(1, 0, 1000);
+		for (int i = 0; i < 50; i++) {
+			cache.put("OLD" + i, "V" + i);
+		}
+		Thread.sleep(1100);
+		for (int i = 0; i < 20; i++) {
+			cache.put("NEW" + i, "V" + i);
+		}
+
+		Map<String, String> found = scanAll(cache, null, 100);
+		assertEquals(70, cache.size());
+		assertEquals(20, found.size());
+		for (String key : found.keySet()) {
+			assertTrue(key.startsWith("NEW"), key);
+		}
+	}
+
+	private static Map<String, String> scanAll(CustomInMemoryCache<String, String> cache, String prefix, int count) {
+		Map<String, String> found = new HashMap<>();
+		long cursor = 0;
+		do {
+			CustomInMemoryCache.ScanPage<String, String> page = cache.scan(cursor, prefix, count);
+			found.putAll(page.getRecords());
+			cursor = page.getCursor();
+		} while (cursor != 0);
+		return found;
+	}
+
+}
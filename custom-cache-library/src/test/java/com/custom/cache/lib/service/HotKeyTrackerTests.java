@@ -0,0 +1,71 @@
+package com.custom.cache.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class HotKeyTrackerTests {
+
+	private static final long WINDOW = 1000;
+
+	private final AtomicLong now = new AtomicLong(1000000);
+
+	private final HotKeyTracker<String> tracker = new HotKeyTracker<>(2, WINDOW, now::get);
+
+	@Test
+	void hotterKeyReplacesColdestTopKey() {
+		access("A", 3);
+		access("B", 2);
+		access("C", 1);
+		assertArrayEquals(new String[]{"A=3", "B=2"}, tracker.getHotKeys());
+
+		access("C", 2);
+		assertArrayEquals(new String[]{"A=3", "C=3"}, tracker.getHotKeys());
+	}
+
+	@Test
+	void decayDropsKeysToZero() {
+		access("A", 4);
+		access("B", 1);
+		assertEquals(5, tracker.getAccessesInWindow());
+
+		now.addAndGet(WINDOW);
+		assertArrayEquals(new String[]{"A=2"}, tracker.getHotKeys());
+		assertEquals(0, tracker.estimate("B"));
+		assertEquals(2, tracker.getAccessesInWindow());
+
+		now.addAndGet(2 * WINDOW);
+		assertArrayEquals(new String[0], tracker.getHotKeys());
+		assertEquals(0, tracker.getAccessesInWindow());
+	}
+
+	@Test
+	void accessCountDecaysWithoutNewAccess() {
+		access("A", 8);
+		now.addAndGet(2 * WINDOW);
+		assertEquals(2, tracker.getAccessesInWindow());
+	}
+
+	@Test
+	void largeKeyExpiresAfterAFullWindowWithoutWrite() {
+		tracker.recordValueSize("OLD", 100);
+		tracker.recordValueSize("NEW", 10);
+
+		now.addAndGet(WINDOW);
+		tracker.recordValueSize("NEW", 10);
+		assertArrayEquals(new String[]{"OLD=100", "NEW=10"}, tracker.getLargeKeys());
+
+		now.addAndGet(WINDOW);
+		assertArrayEquals(new String[]{"NEW=10"}, tracker.getLargeKeys());
+	}
+
+	private void access(String key, int times) {
+		for (int i = 0; i < times; i++) {
+			tracker.recordAccess(key);
+		}
+	}
+
+}
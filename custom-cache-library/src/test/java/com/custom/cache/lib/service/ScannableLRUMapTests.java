@@ -0,0 +1,54 @@
+package com.custom.cache.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ScannableLRUMapTests {
+
+	@Test
+	void walkSurvivesTableGrowth() {
+		//1024 buckets, doubled to 2048 once more than 768 entries are held
+		ScannableLRUMap map = new ScannableLRUMap(1000);
+		for (int i = 0; i < 700; i++) {
+			map.put("K" + i, "V" + i);
+		}
+
+		Set<Object> visited = new HashSet<>();
+		long cursor = map.scan(0, 100, (key, value) -> visited.add(key));
+		assertTrue(cursor != 0);
+
+		for (int i = 700; i < 1000; i++) {
+			map.put("K" + i, "V" + i);
+		}
+		while (cursor != 0) {
+			cursor = map.scan(cursor, 100, (key, value) -> visited.add(key));
+		}
+
+		for (int i = 0; i < 700; i++) {
+			assertTrue(visited.contains("K" + i), "K" + i + " not visited");
+		}
+	}
+
+	@Test
+	void walkLeavesAccessOrderUntouched() {
+		ScannableLRUMap map = new ScannableLRUMap(10);
+		for (int i = 0; i < 10; i++) {
+			map.put("K" + i, "V" + i);
+		}
+		long cursor = 0;
+		do {
+			cursor = map.scan(cursor, 3, (key, value) -> { });
+		} while (cursor != 0);
+
+		map.put("K10", "V10");
+		assertEquals(10, map.size());
+		assertFalse(map.containsKey("K0"));
+	}
+
+}